@@ -1,28 +1,39 @@
 package auraya;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
+import java.net.BindException;
+import java.net.ConnectException;
 import java.net.HttpURLConnection;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
 import java.net.URL;
 import java.net.URLEncoder;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
 
 import javax.net.ssl.HttpsURLConnection;
 import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocketFactory;
 
-import com.fasterxml.jackson.core.JsonParseException;
-import com.fasterxml.jackson.databind.DeserializationFeature;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 
+import auraya.sink.ConsoleSink;
+import auraya.sink.Result;
+import auraya.sink.ResultSink;
 import auraya.v8.body.CrossMatch;
 import auraya.v8.body.Enrolment;
 import auraya.v8.body.Gender;
@@ -33,15 +44,18 @@ import auraya.v8.body.Utterance;
 import auraya.v8.body.Verification;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
 import lombok.SneakyThrows;
 
 /**
  * Builds JSON request objects for Armorvox API version 8, 
- * then sends them to the configured server endpoint and prints the response.
+ * then sends them to the configured server endpoint and writes the response to a result sink.
  * 
  * Can be configured to show request and response JSON objects pretty printed for clarity.
  * 
  * Each v8 API call is represented by a corresponding public method in this class.
+ * Each method returns the HTTP response code of the call.
  * 
  * @author Jamie Lister
  *
@@ -51,10 +65,30 @@ public class ArmorvoxClient {
 	
 	private String server;
 	private String group;
-	private SSLContext sslContext;
+	private SSLSocketFactory socketFactory;
 	private boolean showRequest = false;
 	private final ObjectMapper mapper = new ObjectMapper();
 	
+	/**
+	 * Optional cache of check enrolled results. Null disables caching.
+	 */
+	@Setter private EnrolmentCache enrolmentCache;
+	
+	/**
+	 * Maximum concurrent requests made by bulk calls
+	 */
+	@Setter private int bulkConcurrency = 8;
+	
+	/**
+	 * Where the result of each request is written. Prints to the console by default.
+	 */
+	@Setter private ResultSink sink;
+	
+	/**
+	 * Limits retries of failed requests. May be shared by clients for a shared retry budget.
+	 */
+	@Getter @Setter private RetryPolicy retryPolicy = new RetryPolicy();
+	
 	@AllArgsConstructor
 	@Data
 	public static class UtteranceParameters {
@@ -65,25 +99,29 @@ public class ArmorvoxClient {
 		 Boolean isRecognition;
 	}
 	
-	@SneakyThrows
 	public ArmorvoxClient(String server, String group, boolean isPrettyPrint, boolean showRequest) {
+		this(server, group, createSocketFactory(), isPrettyPrint, showRequest);
+	}
+	
+	/**
+	 * Creates a client that shares its SSL socket factory, and so its pooled keep-alive connections, with other clients.
+	 */
+	ArmorvoxClient(String server, String group, SSLSocketFactory socketFactory, boolean isPrettyPrint, boolean showRequest) {
 		this.server = server;
 		this.group = group;
-		this.sslContext = SSLContext.getInstance("TLS");
-		this.sslContext.init(null, null, null);
+		this.socketFactory = socketFactory;
 		this.showRequest = showRequest;
+		this.sink = new ConsoleSink(isPrettyPrint, showRequest);
 		
 		if (isPrettyPrint) {
 			mapper.enable(SerializationFeature.INDENT_OUTPUT);
-			mapper.enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
-			mapper.enable(DeserializationFeature.USE_BIG_INTEGER_FOR_INTS);
 		}
 	}
 	
 
 	
 	@SneakyThrows
-	public void enrol(String id, String printName, UtteranceParameters[] utterances, String channel, String overrides) {
+	public int enrol(String id, String printName, UtteranceParameters[] utterances, String channel, String overrides) {
 		
 		List<Utterance> jsonUtterances = getUtterances(utterances);
 		
@@ -92,90 +130,228 @@ public class ArmorvoxClient {
 		enrolment.setChannel(channel);
 		enrolment.setOverride(overrides);
 		
-		sendAndReceive(format("/voiceprint/%s/%s", id, printName), "POST", enrolment);
+		invalidateEnrolment(id, printName);
+		try {
+			return sendAndReceive(format("/voiceprint/%s/%s", id, printName), "POST", enrolment, false);
+		} finally {
+			invalidateEnrolment(id, printName);
+		}
+	}
+	
+	public int verify(String id, String printName, UtteranceParameters utterance, String channel, String overrides) {
+		if (isEmptyAudio(utterance)) {
+			return sendAndReceive(format("/voiceprint/%s/%s", id, printName), "PUT", newVerification(getUtterance(utterance), channel, overrides), true);
+		}
+		return send(verifyTemplate(id, printName, utterance, channel, overrides), utterance.getFilepath());
 	}
 	
+	/**
+	 * Pre-serialises a verify request. The utterance file path is ignored; audio is supplied to each send call.
+	 * 
+	 * @return A template that can be sent repeatedly with different audio
+	 */
 	@SneakyThrows
-	public void verify(String id, String printName, UtteranceParameters utterance, String channel, String overrides) {
-		
-		Utterance jsonUtterance = getUtterance(utterance);
-		
+	public RequestTemplate verifyTemplate(String id, String printName, UtteranceParameters utterance, String channel, String overrides) {
+		Verification verification = newVerification(getUtteranceTemplate(utterance), channel, overrides);
+		return new RequestTemplate(format("/voiceprint/%s/%s", id, printName), "PUT", mapper.writeValueAsString(verification));
+	}
+	
+	private Verification newVerification(Utterance jsonUtterance, String channel, String overrides) {
 		Verification verification = new Verification();
 		verification.setUtterance(jsonUtterance);
 		verification.setChannel(channel);
 		verification.setOverride(overrides);
-		
-		sendAndReceive(format("/voiceprint/%s/%s", id, printName), "PUT", verification);
+		return verification;
 	}
 	
 
 	@SneakyThrows
-	public void delete(String id, String printName) {
-		sendAndReceive(format("/voiceprint/%s/%s", id, printName), "DELETE", null);
+	public int delete(String id, String printName) {
+		invalidateEnrolment(id, printName);
+		try {
+			return sendAndReceive(format("/voiceprint/%s/%s", id, printName), "DELETE", null, false);
+		} finally {
+			invalidateEnrolment(id, printName);
+		}
+	}
+	
+	public int getVoicePrint(String id, String printName, boolean noPayload) {
+		return sendAndReceive(format("/voiceprint/%s/%s?no_payload=%s", id, printName, noPayload), "GET", null, true);
+	}
+	
+	/**
+	 * Checks whether an ID has a voiceprint, using the enrolment cache if one is set.
+	 * 
+	 * @return True if enrolled, false if not, or null if the server gave neither answer (e.g. an error)
+	 */
+	public Boolean checkEnrolled(String id, String printName) {
+		if (enrolmentCache != null) {
+			Boolean cached = enrolmentCache.get(group, id, printName);
+			if (cached != null) {
+				// Recorded like a response, so output can still be matched to every ID checked
+				String path = String.format("%s%s", server, format("/voiceprint/%s/%s?no_payload=%s", id, printName, true));
+				sink.write(new Result(System.currentTimeMillis(), group, "GET", path, null, cached ? 200 : 404, "cached", 0));
+				return cached;
+			}
+		}
+		
+		// Taken before the lookup, so a result that races an enrol or delete is not cached
+		long generation = enrolmentCache != null ? enrolmentCache.getGeneration() : 0;
+		
+		int responseCode = sendAndReceive(format("/voiceprint/%s/%s?no_payload=%s", id, printName, true), "GET", null, true);
+		Boolean isEnrolled = responseCode == 200 ? Boolean.TRUE : responseCode == 404 ? Boolean.FALSE : null;
+		
+		if (enrolmentCache != null && isEnrolled != null) {
+			enrolmentCache.put(group, id, printName, isEnrolled, generation);
+		}
+		return isEnrolled;
 	}
 	
-	public void getVoicePrint(String id, String printName, boolean noPayload) {
-		sendAndReceive(format("/voiceprint/%s/%s?no_payload=%s", id, printName, noPayload), "GET", null);
+	/**
+	 * Checks many IDs at once, making up to bulkConcurrency requests concurrently.
+	 * 
+	 * @return Each ID's result from checkEnrolled, in the order given
+	 */
+	@SneakyThrows
+	public Map<String, Boolean> checkEnrolled(String[] ids, String printName) {
+		List<Callable<Boolean>> tasks = new ArrayList<>();
+		for (String id : ids) {
+			tasks.add(() -> checkEnrolled(id, printName));
+		}
+		List<Boolean> results = Threads.fanOut(tasks, bulkConcurrency);
+		
+		Map<String, Boolean> result = new LinkedHashMap<>();
+		for (int i = 0; i < ids.length; i++) {
+			result.put(ids[i], results.get(i));
+		}
+		return result;
 	}
 
-	public void getPhrase(String vocab) {
-		sendAndReceive(format("/phrase/%s", vocab), "GET", null);
+	public int getPhrase(String vocab) {
+		return sendAndReceive(format("/phrase/%s", vocab), "GET", null, true);
 	}
 
-	public void checkHealth() {
-		sendAndReceive("/health", "GET", null);
+	public int checkHealth() {
+		return sendAndReceive("/health", "GET", null, true);
 	}
 
-	public void checkQuality(String printName, UtteranceParameters utterance, String mode, String channel, String overrides) {
-		Utterance jsonUtterance = getUtterance(utterance);
-		
+	public int checkQuality(String printName, UtteranceParameters utterance, String mode, String channel, String overrides) {
+		if (isEmptyAudio(utterance)) {
+			return sendAndReceive(format("/analysis/quality/%s", printName), "POST", newQuality(getUtterance(utterance), mode, channel, overrides), true);
+		}
+		return send(checkQualityTemplate(printName, utterance, mode, channel, overrides), utterance.getFilepath());
+	}
+	
+	/**
+	 * Pre-serialises a check quality request. The utterance file path is ignored; audio is supplied to each send call.
+	 * 
+	 * @return A template that can be sent repeatedly with different audio
+	 */
+	@SneakyThrows
+	public RequestTemplate checkQualityTemplate(String printName, UtteranceParameters utterance, String mode, String channel, String overrides) {
+		Quality quality = newQuality(getUtteranceTemplate(utterance), mode, channel, overrides);
+		return new RequestTemplate(format("/analysis/quality/%s", printName), "POST", mapper.writeValueAsString(quality));
+	}
+	
+	private Quality newQuality(Utterance jsonUtterance, String mode, String channel, String overrides) {
 		Quality quality = new Quality();
 		quality.setUtterance(jsonUtterance);
 		quality.setChannel(channel);
 		quality.setOverride(overrides);
 		quality.setMode(mode);
-		
-		sendAndReceive(format("/analysis/quality/%s", printName), "POST", quality);
+		return quality;
 	}
 
 
-	public void crossMatch(String[] ids, String printName, UtteranceParameters utterance, String channel, String overrides) {
-		Utterance jsonUtterance = getUtterance(utterance);
-		
+	public int crossMatch(String[] ids, String printName, UtteranceParameters utterance, String channel, String overrides) {
+		if (isEmptyAudio(utterance)) {
+			return sendAndReceive(format("/voiceprint/%s", printName), "PUT", newCrossMatch(ids, getUtterance(utterance), channel, overrides), true);
+		}
+		return send(crossMatchTemplate(ids, printName, utterance, channel, overrides), utterance.getFilepath());
+	}
+	
+	/**
+	 * Pre-serialises a cross match request, including the list of ids. 
+	 * The utterance file path is ignored; audio is supplied to each send call.
+	 * 
+	 * @return A template that can be sent repeatedly with different audio
+	 */
+	@SneakyThrows
+	public RequestTemplate crossMatchTemplate(String[] ids, String printName, UtteranceParameters utterance, String channel, String overrides) {
+		CrossMatch crossMatch = newCrossMatch(ids, getUtteranceTemplate(utterance), channel, overrides);
+		return new RequestTemplate(format("/voiceprint/%s", printName), "PUT", mapper.writeValueAsString(crossMatch));
+	}
+	
+	private CrossMatch newCrossMatch(String[] ids, Utterance jsonUtterance, String channel, String overrides) {
 		CrossMatch crossMatch = new CrossMatch();
 		crossMatch.setIds(Arrays.asList(ids));
 		crossMatch.setUtterance(jsonUtterance);
 		crossMatch.setChannel(channel);
 		crossMatch.setOverride(overrides);
+		return crossMatch;
+	}
+	
+	/**
+	 * Sends a pre-serialised request with the audio from the given file spliced in as the utterance content.
+	 * 
+	 * @param template A template from verifyTemplate, crossMatchTemplate or checkQualityTemplate
+	 * @param filepath Path to the utterance audio
+	 * @throws IllegalArgumentException if the audio is empty
+	 */
+	@SneakyThrows
+	public int send(RequestTemplate template, String filepath) {
+		Path audio = Paths.get(filepath);
+		long audioLength = Files.size(audio);
+		
+		// The POJO path omits empty content, which a template cannot do
+		if (audioLength == 0) throw new IllegalArgumentException("Utterance audio is empty: " + filepath);
 		
-		sendAndReceive(format("/voiceprint/%s", printName), "PUT", crossMatch);
+		return sendAndReceive(template.getRequestPath(), template.getMethod(), template.getContentLength(audioLength), os -> template.writeTo(os, audio), true);
+	}
+	
+	/**
+	 * Sends a pre-serialised request once for each audio file, making up to bulkConcurrency requests concurrently.
+	 * 
+	 * @param template A template from verifyTemplate, crossMatchTemplate or checkQualityTemplate
+	 * @param filepaths Paths to the utterance audio
+	 */
+	@SneakyThrows
+	public void sendAll(RequestTemplate template, String[] filepaths) {
+		List<Callable<Void>> tasks = new ArrayList<>();
+		for (String filepath : filepaths) {
+			tasks.add(() -> {
+				send(template, filepath);
+				return null;
+			});
+		}
+		Threads.fanOut(tasks, bulkConcurrency);
 	}
 	
 
-	public void detectGender(UtteranceParameters[] utterances, String overrides) {
+	public int detectGender(UtteranceParameters[] utterances, String overrides) {
 		List<Utterance> jsonUtterances = getUtterances(utterances);
 		
 		Gender gender = new Gender();
 		gender.setUtterances(jsonUtterances);
 		gender.setOverride(overrides);
 		
-		sendAndReceive(format("/analysis/gender"), "POST", gender);
+		return sendAndReceive(format("/analysis/gender"), "POST", gender, true);
 	}
 	
 
-	public void similariy(UtteranceParameters[] utts, String overrides) {
+	public int similariy(UtteranceParameters[] utts, String overrides) {
 		List<Utterance> jsonUtterances = getUtterances(utts);
 		
 		Similarity similarity = new Similarity();
 		similarity.setUtterances(jsonUtterances);
 		similarity.setOverride(overrides);
 		
-		sendAndReceive(format("/analysis/similarity"), "POST", similarity);
+		return sendAndReceive(format("/analysis/similarity"), "POST", similarity, true);
 	}
 
 
 
-	public void modelRank(UtteranceParameters[] utts, String[] ubmNames, String overrides) {
+	public int modelRank(UtteranceParameters[] utts, String[] ubmNames, String overrides) {
 		List<Utterance> jsonUtterances = getUtterances(utts);
 		
 		ModelRank modelRank = new ModelRank();
@@ -184,11 +360,30 @@ public class ArmorvoxClient {
 		modelRank.setOverride(overrides);
 		
 
-		sendAndReceive(format("/analysis/model_rank"), "POST", modelRank);
+		return sendAndReceive(format("/analysis/model_rank"), "POST", modelRank, true);
 	}
 
 
 
+	private void invalidateEnrolment(String id, String printName) {
+		if (enrolmentCache != null) {
+			enrolmentCache.invalidate(group, id, printName);
+		}
+	}
+	
+	/**
+	 * The socket factory must be created once and reused. HTTPS keep-alive connections are only
+	 * pooled between requests that use the same factory instance.
+	 * 
+	 * @return A socket factory from a default TLS context
+	 */
+	@SneakyThrows
+	static SSLSocketFactory createSocketFactory() {
+		SSLContext sslContext = SSLContext.getInstance("TLS");
+		sslContext.init(null, null, null);
+		return sslContext.getSocketFactory();
+	}
+
 	/**
 	 * Formats arguments for safe use in URL
 	 * 
@@ -229,19 +424,146 @@ public class ArmorvoxClient {
 		byte[] bytes = Files.readAllBytes(Paths.get(up.filepath));		
 		return new Utterance(bytes, up.getPhrase(), up.getVocab(), null, up.getCheckQuality(), up.getIsRecognition());
 	}
+	
+	/**
+	 * A template cannot omit empty content as the POJO path does, 
+	 * so one-shot calls send empty audio without a template
+	 */
+	@SneakyThrows
+	private boolean isEmptyAudio(UtteranceParameters up) {
+		return Files.size(Paths.get(up.filepath)) == 0;
+	}
+	
+	/**
+	 * 
+	 * @param up An UtteranceParameter object. The path is ignored.
+	 * @return A 'Jackson ready' API v8 utterance object with placeholder content, for use in a RequestTemplate
+	 */
+	private Utterance getUtteranceTemplate(UtteranceParameters up) {
+		return new Utterance(RequestTemplate.PLACEHOLDER, up.getPhrase(), up.getVocab(), null, up.getCheckQuality(), up.getIsRecognition());
+	}
+
+	/**
+	 * Writes a request body to the connection's output stream
+	 */
+	private interface RequestBody {
+		void writeTo(OutputStream os) throws IOException;
+	}
+	
+	/**
+	 * Thrown when a connection fails before any of the request was sent, 
+	 * so even a request that changes state can safely be retried
+	 */
+	private static class NotSentException extends IOException {
+		private static final long serialVersionUID = 1L;
 
+		NotSentException(IOException cause) {
+			super("Request not sent: " + cause.getMessage(), cause);
+		}
+	}
+	
 	/**
 	 * 
 	 * @param requestPath URL path to RESTful service
 	 * @param method HTTP method (GET, POST, PUT, DELETE)
 	 * @param bodyObject The 'Jackson ready' object to deserialise
+	 * @param isIdempotent Whether the request can be repeated without changing state on the server
+	 * @return The HTTP response code
 	 */
 	@SneakyThrows
-	private void sendAndReceive(String requestPath, String method, Object bodyObject) {
-		
+	private int sendAndReceive(String requestPath, String method, Object bodyObject, boolean isIdempotent) {
+		if (bodyObject == null) {
+			return sendAndReceive(requestPath, method, 0, null, isIdempotent);
+		} else {
+			byte[] body = mapper.writeValueAsString(bodyObject).getBytes(Charset.defaultCharset());
+			return sendAndReceive(requestPath, method, body.length, os -> os.write(body), isIdempotent);
+		}
+	}
+	
+	/**
+	 * Sends a request, retrying if it fails in a way that is safe to retry and the retry policy allows.
+	 * 
+	 * Idempotent requests are retried after a connection failure or a 502, 503 or 504 response.
+	 * Other requests are only retried if the connection failed before the request was sent.
+	 * Other errors, such as a bad URL, a missing file or an untrusted certificate, are never retried.
+	 * Only the final attempt's result is written to the sink. If it failed with an exception, 
+	 * the result has response code -1 and the exception as the response.
+	 * 
+	 * @param requestPath URL path to RESTful service
+	 * @param method HTTP method (GET, POST, PUT, DELETE)
+	 * @param contentLength The exact size of the body in bytes
+	 * @param body Writes the serialised JSON body, or null if there is none
+	 * @param isIdempotent Whether the request can be repeated without changing state on the server
+	 * @return The HTTP response code
+	 */
+	@SneakyThrows
+	private int sendAndReceive(String requestPath, String method, long contentLength, RequestBody body, boolean isIdempotent) {
 		
 		String path = String.format("%s%s", server, requestPath);
-		System.out.printf("%s %s%n", method, path);
+		
+		String request = null;
+		if (body != null && this.showRequest) {
+			ByteArrayOutputStream rendered = new ByteArrayOutputStream();
+			body.writeTo(rendered);
+			request = new String(rendered.toByteArray(), Charset.defaultCharset());
+		}
+		
+		retryPolicy.onRequest();
+		for (int attempt = 1; ; attempt++) {
+			Result result;
+			try {
+				result = exchange(path, method, contentLength, body, request);
+			} catch (IOException e) {
+				boolean isSafe = isConnectionFailure(e) && (isIdempotent || e instanceof NotSentException);
+				if (!isSafe || !retryPolicy.tryRetry(attempt)) {
+					// NotSentException is only used to decide on retries. Callers see the original failure.
+					IOException failure = e instanceof NotSentException ? (IOException) e.getCause() : e;
+					sink.write(new Result(System.currentTimeMillis(), group, method, path, request, -1, failure.toString(), 0));
+					throw failure;
+				}
+				Thread.sleep(retryPolicy.getBackoffMillis(attempt));
+				continue;
+			}
+			
+			if (isIdempotent && isTransient(result.getResponseCode()) && retryPolicy.tryRetry(attempt)) {
+				Thread.sleep(retryPolicy.getBackoffMillis(attempt));
+				continue;
+			}
+			
+			sink.write(result);
+			return result.getResponseCode();
+		}
+	}
+	
+	/**
+	 * @return True for failures to connect or of an open connection, which may succeed on another attempt
+	 */
+	private static boolean isConnectionFailure(IOException e) {
+		Throwable cause = e instanceof NotSentException ? e.getCause() : e;
+		return cause instanceof ConnectException
+				|| cause instanceof SocketTimeoutException
+				|| (cause instanceof SocketException && !(cause instanceof BindException));
+	}
+	
+	/**
+	 * @return True for responses from a server that is overloaded, restarting or behind an unavailable proxy
+	 */
+	private static boolean isTransient(int responseCode) {
+		return responseCode == 502 || responseCode == 503 || responseCode == 504;
+	}
+	
+	/**
+	 * Makes a single attempt at a request
+	 * 
+	 * @param path Full URL of RESTful service
+	 * @param method HTTP method (GET, POST, PUT, DELETE)
+	 * @param contentLength The exact size of the body in bytes
+	 * @param body Writes the serialised JSON body, or null if there is none
+	 * @param request The body to show in the result, or null
+	 * @return The response
+	 * @throws NotSentException if the connection failed before the request was sent
+	 */
+	private Result exchange(String path, String method, long contentLength, RequestBody body, String request) throws IOException {
 		
 		// Open connection
 		URL url = new URL(path);
@@ -251,67 +573,48 @@ public class ArmorvoxClient {
 		
 		// Setup SSL if necessary
 	    if ("https".equalsIgnoreCase(url.getProtocol())) {
-	        ((HttpsURLConnection) connection).setSSLSocketFactory(sslContext.getSocketFactory());
+	        ((HttpsURLConnection) connection).setSSLSocketFactory(socketFactory);
+	    }
+	    
+	    if (body != null) {
+			connection.setDoOutput(true);
+			connection.setFixedLengthStreamingMode(contentLength);
+	    }
+	    
+	    // Connect first, so a failure here is known to be before anything was sent
+	    try {
+	    	connection.connect();
+	    } catch (IOException e) {
+	    	throw new NotSentException(e);
 	    }
 	    
 	    long startTime = System.nanoTime();
 	    
 	    // Send object body
-	    if (bodyObject != null) {
-	    	
-	    	String body = mapper.writeValueAsString(bodyObject);
-			if (this.showRequest) {
-				System.out.println();
-				System.out.println("Request body:");
-				System.out.println(body);
-			}
-	    	
-			connection.setDoOutput(true);
+	    if (body != null) {
 			OutputStream os = connection.getOutputStream();
-			
-
-		    startTime = System.nanoTime();
-			os.write(body.getBytes(Charset.defaultCharset()));
+			body.writeTo(os);
 			os.flush();
 			os.close();
-	    } else {
-	    	if (this.showRequest) {
-				System.out.println();
-				System.out.println("Request body is empty");
-	    	}
 	    }
 	    
 	    // Wait for response
-	    // optionally pretty print 
-	    InputStream is = connection.getResponseCode() == 200 ? connection.getInputStream() : connection.getErrorStream();
+	    int responseCode = connection.getResponseCode();
+	    InputStream is = responseCode == 200 ? connection.getInputStream() : connection.getErrorStream();
 	    long endTime = System.nanoTime();
 	    
-	    // Print response
-	    try (BufferedReader br = new BufferedReader(new InputStreamReader(is, Charset.defaultCharset()))) {
-			String inputLine;
-			StringBuffer sb = new StringBuffer();
-			while ((inputLine = br.readLine()) != null) {
-				sb.append(inputLine);
-			}
-
-			System.out.println();
-			System.out.println("Response body:");
-			String response = sb.toString();
-			
-			// Parse and rewrite for pretty printing
-			if (mapper.isEnabled(SerializationFeature.INDENT_OUTPUT)) {
-				try {
-					JsonNode responseNode = mapper.readTree(response);
-					System.out.println(mapper.writeValueAsString(responseNode));
-				} catch (JsonParseException e) {
-					System.out.println(response);
+	    // Read response
+	    StringBuffer sb = new StringBuffer();
+	    if (is != null) {
+		    try (BufferedReader br = new BufferedReader(new InputStreamReader(is, Charset.defaultCharset()))) {
+				String inputLine;
+				while ((inputLine = br.readLine()) != null) {
+					sb.append(inputLine);
 				}
-			} else {
-				System.out.println(response);
 			}
-		}
+	    }
 	    
-	    System.out.printf("%nTime %d milliseconds%n", (endTime - startTime) / 1000000);
+	    return new Result(System.currentTimeMillis(), group, method, path, request, responseCode, sb.toString(), (endTime - startTime) / 1000000);
 	}
 
 
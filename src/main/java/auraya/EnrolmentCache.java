@@ -0,0 +1,123 @@
+package auraya;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+
+/**
+ * A local cache of whether an ID is enrolled for a print name, so that repeated
+ * check enrolled calls for the same caller do not each need a round trip to the server.
+ *
+ * Both enrolled and not enrolled results are cached, each with their own time to live.
+ * ArmorvoxClient invalidates entries itself when it enrols or deletes a voiceprint.
+ *
+ * A lookup that started before an invalidation may finish after it, with a result from before the
+ * enrol or delete. To avoid caching that stale result, callers take the generation before the lookup
+ * and pass it to put, which skips the write if the entry was invalidated since.
+ *
+ * Entries are keyed by group as well, so one cache may be shared by clients for different groups.
+ */
+public class EnrolmentCache {
+
+	private final long enrolledTtlMillis;
+	private final long notEnrolledTtlMillis;
+
+	// Guarded by 'this'
+	private final Map<String, CacheEntry> entries;
+	private long generation = 0;
+	private long evictedGeneration = 0;
+
+	/**
+	 * A cached status, or a marker that the key was invalidated at 'generation' if isEnrolled is null
+	 */
+	@AllArgsConstructor
+	private static class CacheEntry {
+		final Boolean isEnrolled;
+		final long expiryTime;
+		final long generation;
+	}
+
+	/**
+	 *
+	 * @param enrolledTtlMillis How long an enrolled result is kept
+	 * @param notEnrolledTtlMillis How long a not enrolled result is kept
+	 * @param maxEntries Most entries kept. The oldest are evicted beyond this.
+	 */
+	public EnrolmentCache(long enrolledTtlMillis, long notEnrolledTtlMillis, int maxEntries) {
+		this.enrolledTtlMillis = enrolledTtlMillis;
+		this.notEnrolledTtlMillis = notEnrolledTtlMillis;
+		this.entries = new LinkedHashMap<String, CacheEntry>() {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+				if (size() <= maxEntries) return false;
+				forget(eldest.getValue());
+				return true;
+			}
+		};
+	}
+
+	/**
+	 * @return The cached enrolment status, or null if not cached or expired
+	 */
+	public synchronized Boolean get(String group, String id, String printName) {
+		CacheEntry entry = entries.get(key(group, id, printName));
+		if (entry == null || entry.isEnrolled == null) return null;
+		if (entry.expiryTime < System.currentTimeMillis()) {
+			entries.remove(key(group, id, printName));
+			forget(entry);
+			return null;
+		}
+		return entry.isEnrolled;
+	}
+
+	/**
+	 * @return The current generation, to be taken before a lookup and passed to put
+	 */
+	public synchronized long getGeneration() {
+		return generation;
+	}
+
+	/**
+	 * Caches a lookup's result, unless the entry has been invalidated since the lookup started
+	 *
+	 * @param lookupGeneration The generation taken before the lookup started
+	 */
+	public synchronized void put(String group, String id, String printName, boolean isEnrolled, long lookupGeneration) {
+		if (lookupGeneration < evictedGeneration) return;
+
+		String key = key(group, id, printName);
+		CacheEntry entry = entries.get(key);
+		if (entry != null && entry.generation > lookupGeneration) return;
+
+		long ttl = isEnrolled ? enrolledTtlMillis : notEnrolledTtlMillis;
+		entries.remove(key);
+		entries.put(key, new CacheEntry(isEnrolled, System.currentTimeMillis() + ttl, lookupGeneration));
+	}
+
+	public synchronized void invalidate(String group, String id, String printName) {
+		String key = key(group, id, printName);
+		entries.remove(key);
+		entries.put(key, new CacheEntry(null, Long.MAX_VALUE, ++generation));
+	}
+
+	public synchronized void clear() {
+		evictedGeneration = ++generation;
+		entries.clear();
+	}
+
+	/**
+	 * Called when an entry is removed without being replaced. An entry may stand for an 
+	 * invalidation that a slower lookup has not seen yet, so once it is gone no lookup 
+	 * started before its generation may be cached.
+	 */
+	private void forget(CacheEntry entry) {
+		evictedGeneration = Math.max(evictedGeneration, entry.generation);
+	}
+
+	private static String key(String group, String id, String printName) {
+		return group + '\n' + id + '\n' + printName;
+	}
+}
@@ -1,5 +1,6 @@
 package auraya;
 
+import java.io.IOException;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Paths;
@@ -14,6 +15,10 @@ import org.apache.commons.cli.ParseException;
 import org.apache.commons.lang3.StringUtils;
 
 import auraya.ArmorvoxClient.UtteranceParameters;
+import auraya.sink.ConsoleSink;
+import auraya.sink.CsvSink;
+import auraya.sink.JsonlSink;
+import auraya.sink.ResultSink;
 import lombok.SneakyThrows;
 
 /**
@@ -54,7 +59,7 @@ public class Main {
 		
 		// Print selection options
 		options.addOption("pn", "print_name", true, "print name, default is 'digit'");
-		options.addOption("i", 	"id", true, "The ID(s) to enrol, verify, delete, or cross_match. Also used to name models in model_rank API.");
+		options.addOption("i", 	"id", true, "The ID(s) to enrol, verify, delete, check_enrolled or cross_match. Also used to name models in model_rank API.");
 		
 		// Utterance options
 		options.addOption("u", 	"utterance", true, "The utterance(s) to use. Grouped with corresponding p, cq, r, vc options.");
@@ -67,10 +72,12 @@ public class Main {
 		options.addOption("m", 	"mode", true, "Mode used by check_quality API. Accepts 'enrol', 'verify', 'cross_match' and 'characterise'. Default is 'enrol'");
 		options.addOption("o", 	"override", true, "Overrides configuration parameter(s) in the request");
 		options.addOption("ch", "channel", true, "Sets the channel request parameter. Default is null (not specified)");
+		options.addOption("rt", "retries", true, "Maximum retries of a request after a transient failure. Default is 2");
 		
 		// Output options
 		options.addOption("sr", "show_request", false, "Show the JSON request object if specified");
 		options.addOption("pp", "print_print", false, "Pretty print the JSON request and response if specified");
+		options.addOption("of", "output_file", true, "Write results to this file instead of the console. Format is JSON lines or CSV by extension .jsonl or .csv, gzip compressed if it also ends with .gz");
 		options.addOption("xu", "exclude_utterance", false, "Simple way to comment out an utterance from command line"); // This is used to make editing the command line easier
 		
 		options.addOption("h", "help", true, "Prints help message");
@@ -107,69 +114,75 @@ public class Main {
 			boolean showRequest = cli.hasOption("sr");
 			
 			ArmorvoxClient client = new ArmorvoxClient(server, group, prettyPrint, showRequest);
+			client.setRetryPolicy(new RetryPolicy(getRetries(cli) + 1, 100, 2000, 0.1, 10));
 			
-			// Check API has required options set. Call client.
-			switch (api) {
-			case ENROL: 
-				if (ids == null || ids.length != 1) throw new ParseException("Enrol API must have 1 id");
-				if (utts == null) throw new ParseException("Enrol API must have utterance(s)");
-				client.enrol(ids[0], printName, utts, channel, overrides);
-				break;
+			// Closing the sink writes any buffered results, even if a call fails
+			try (ResultSink sink = cli.hasOption("of") ? createFileSink(cli.getOptionValue("of")) : new ConsoleSink(prettyPrint, showRequest)) {
+				client.setSink(sink);
+			
+				// Check API has required options set. Call client.
+				switch (api) {
+				case ENROL: 
+					if (ids == null || ids.length != 1) throw new ParseException("Enrol API must have 1 id");
+					if (utts == null) throw new ParseException("Enrol API must have utterance(s)");
+					client.enrol(ids[0], printName, utts, channel, overrides);
+					break;
 				
-			case VERIFY: 
-				if (ids == null || ids.length != 1) throw new ParseException("Verify API must have 1 id");
-				if (utts == null || utts.length != 1) throw new ParseException("Verify API must have 1 utterance");
-				client.verify(ids[0], printName, utts[0], channel, overrides);
-				break;
+				case VERIFY: 
+					if (ids == null || ids.length != 1) throw new ParseException("Verify API must have 1 id");
+					if (utts == null || utts.length != 1) throw new ParseException("Verify API must have 1 utterance");
+					client.verify(ids[0], printName, utts[0], channel, overrides);
+					break;
 				
-			case GET_VOICEPRINT:
-				if (ids == null || ids.length != 1) throw new ParseException("Get Voiceprint API must have 1 id");
-				client.getVoicePrint(ids[0], printName, false);
-				break;
+				case GET_VOICEPRINT:
+					if (ids == null || ids.length != 1) throw new ParseException("Get Voiceprint API must have 1 id");
+					client.getVoicePrint(ids[0], printName, false);
+					break;
 				
-			case CHECK_ENROLLED:
-				if (ids == null || ids.length != 1) throw new ParseException("Check Enrolled API must have 1 id");
-				client.getVoicePrint(ids[0], printName, true);
-				break;
+				case CHECK_ENROLLED:
+					if (ids == null) throw new ParseException("Check Enrolled API must have id(s)");
+					client.checkEnrolled(ids, printName);
+					break;
 				
-			case CHECK_HEALTH: 
-				client.checkHealth();
-				break;
+				case CHECK_HEALTH: 
+					client.checkHealth();
+					break;
 			
-			case CHECK_QUALITY:
-				if (utts == null || utts.length != 1) throw new ParseException("Check Quality API must have 1 utterance");
-				client.checkQuality(printName, utts[0], mode, channel, overrides);
-				break;
+				case CHECK_QUALITY:
+					if (utts == null || utts.length != 1) throw new ParseException("Check Quality API must have 1 utterance");
+					client.checkQuality(printName, utts[0], mode, channel, overrides);
+					break;
 				
-			case CROSS_MATCH:
-				if (ids == null) throw new ParseException("Cross Match API must have id(s)");
-				if (utts == null || utts.length != 1) throw new ParseException("Cross Match API must have 1 utterance");
-				client.crossMatch(ids, printName, utts[0], channel, overrides);
-				break;
+				case CROSS_MATCH:
+					if (ids == null) throw new ParseException("Cross Match API must have id(s)");
+					if (utts == null || utts.length != 1) throw new ParseException("Cross Match API must have 1 utterance");
+					client.crossMatch(ids, printName, utts[0], channel, overrides);
+					break;
 				
-			case DELETE:
-				if (ids == null || ids.length != 1) throw new ParseException("Delete API must have 1 id");
-				client.delete(ids[0], printName);
-				break;
+				case DELETE:
+					if (ids == null || ids.length != 1) throw new ParseException("Delete API must have 1 id");
+					client.delete(ids[0], printName);
+					break;
 				
-			case DETECT_GENDER:
-				if (utts == null) throw new ParseException("Verify API must have utterance(s)");
-				client.detectGender(utts, overrides);
-				break;
+				case DETECT_GENDER:
+					if (utts == null) throw new ParseException("Verify API must have utterance(s)");
+					client.detectGender(utts, overrides);
+					break;
 				
-			case GET_PHRASE:
-				String vocab = vocabs != null?vocabs[0]:"en_digits";
-				client.getPhrase(vocab);
-				break;
+				case GET_PHRASE:
+					String vocab = vocabs != null?vocabs[0]:"en_digits";
+					client.getPhrase(vocab);
+					break;
 				
-			case CHECK_SIMILARITY:
-				if (utts == null || utts.length != 2) throw new ParseException("Check similarity API must have 2 utterances");
-				client.similariy(utts, overrides);
-				break;
+				case CHECK_SIMILARITY:
+					if (utts == null || utts.length != 2) throw new ParseException("Check similarity API must have 2 utterances");
+					client.similariy(utts, overrides);
+					break;
 				
-			case RANK_MODEL:
-				if (utts == null) throw new ParseException("Model Rank API must have utterance(s)");
-				client.modelRank(utts, ids, overrides);
+				case RANK_MODEL:
+					if (utts == null) throw new ParseException("Model Rank API must have utterance(s)");
+					client.modelRank(utts, ids, overrides);
+				}
 			}
 			
 		} catch (ParseException pe) {
@@ -187,6 +200,35 @@ public class Main {
 		}
 	}
 
+	/**
+	 * @return The maximum retries given by the 'rt' option, or the default of 2
+	 */
+	private static int getRetries(CommandLine cli) throws ParseException {
+		String value = cli.getOptionValue("rt", "2");
+		try {
+			int retries = Integer.parseInt(value);
+			if (retries >= 0) return retries;
+		} catch (NumberFormatException e) {
+			// Reported below
+		}
+		throw new ParseException("Retries must be a whole number of 0 or more: " + value);
+	}
+
+	/**
+	 * Creates a file sink with the format given by the file extension
+	 * 
+	 * @param path Path ending in .jsonl or .csv, optionally followed by .gz
+	 * @return A sink writing to the file
+	 */
+	private static ResultSink createFileSink(String path) throws ParseException, IOException {
+		boolean isGzip = path.endsWith(".gz");
+		String name = isGzip ? path.substring(0, path.length() - 3) : path;
+		
+		if (name.endsWith(".jsonl")) return new JsonlSink(path, isGzip, 1000);
+		if (name.endsWith(".csv")) return new CsvSink(path, isGzip, 1000);
+		throw new ParseException("Output file must end with .jsonl or .csv: " + path);
+	}
+
 	/**
 	 * Bundle utterance parameters into a single class
 	 * 
@@ -0,0 +1,266 @@
+package auraya;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToIntFunction;
+
+import javax.net.ssl.SSLSocketFactory;
+
+import auraya.sink.ResultSink;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Serves many licence groups from one Armorvox server over a single shared transport.
+ *
+ * All groups share one SSL socket factory, and so one pool of keep-alive connections,
+ * and one pool of worker threads. The group is supplied with each request and is
+ * sent as the 'Authorization' header by a lightweight ArmorvoxClient bound to that group.
+ *
+ * Requests are queued per group and dispatched round-robin between groups with pending work,
+ * so a bulk job queued by one group only delays another group by one request per worker.
+ * Each group has a quota limiting how many of its requests may be in flight at once,
+ * and its own metrics.
+ *
+ * Only requests made through submit are scheduled. Bulk calls made on a group's client, 
+ * such as checkEnrolled(String[], ...) or sendAll, run on their own threads and are not 
+ * limited by the group's quota, the shared workers or counted in its metrics.
+ */
+public class MultiTenantArmorvoxClient {
+
+	private final String server;
+	private final boolean isPrettyPrint;
+	private final boolean showRequest;
+	private final SSLSocketFactory socketFactory = ArmorvoxClient.createSocketFactory();
+	private ResultSink sink;
+	private RetryPolicy retryPolicy = new RetryPolicy();
+
+	private final ExecutorService executor;
+	private final int threads;
+	private final int defaultQuota;
+
+	// Scheduling state, guarded by 'this'
+	private final Map<String, Tenant> tenants = new LinkedHashMap<>();
+	private final Queue<Tenant> ready = new ArrayDeque<>();
+	private int running = 0;
+	private boolean isShutdown = false;
+
+	@AllArgsConstructor
+	@Data
+	public static class TenantMetrics {
+		String group;
+		long submitted;
+		long completed;
+		long failed;
+		int queued;
+		int inFlight;
+		long totalMillis;
+	}
+
+	/**
+	 * Per group queue, quota and counters
+	 */
+	private class Tenant {
+		final String group;
+		final ArmorvoxClient client;
+		final Queue<FutureTask<?>> queue = new ArrayDeque<>();
+		int quota = defaultQuota;
+		int inFlight = 0;
+		boolean isReady = false;
+
+		final AtomicLong submitted = new AtomicLong();
+		final AtomicLong completed = new AtomicLong();
+		final AtomicLong failed = new AtomicLong();
+		final AtomicLong totalNanos = new AtomicLong();
+
+		Tenant(String group) {
+			this.group = group;
+			this.client = new ArmorvoxClient(server, group, socketFactory, isPrettyPrint, showRequest);
+			if (sink != null) {
+				client.setSink(sink);
+			}
+			client.setRetryPolicy(retryPolicy);
+		}
+	}
+
+	/**
+	 *
+	 * @param server scheme, address and port of the Armorvox server, e.g. 'http://localhost:9005/v8'
+	 * @param threads Maximum number of requests in flight across all groups
+	 * @param defaultQuota Maximum requests in flight for a group unless set by setQuota. Must be at least 1.
+	 */
+	public MultiTenantArmorvoxClient(String server, int threads, int defaultQuota, boolean isPrettyPrint, boolean showRequest) {
+		if (defaultQuota < 1) throw new IllegalArgumentException("Quota must be at least 1: " + defaultQuota);
+		this.server = server;
+		this.threads = threads;
+		this.defaultQuota = defaultQuota;
+		this.isPrettyPrint = isPrettyPrint;
+		this.showRequest = showRequest;
+		this.executor = Threads.newExecutor(threads);
+	}
+
+	/**
+	 * Sets the maximum number of requests a group may have in flight at once. Must be at least 1.
+	 */
+	public synchronized void setQuota(String group, int quota) {
+		if (quota < 1) throw new IllegalArgumentException("Quota must be at least 1: " + quota);
+		Tenant tenant = getTenant(group);
+		tenant.quota = quota;
+		if (!tenant.isReady && !tenant.queue.isEmpty() && tenant.inFlight < quota) {
+			tenant.isReady = true;
+			ready.add(tenant);
+		}
+		dispatch();
+	}
+
+	/**
+	 * Sets where the results of every group are written. Results include the group name.
+	 */
+	public synchronized void setSink(ResultSink sink) {
+		this.sink = sink;
+		for (Tenant t : tenants.values()) {
+			t.client.setSink(sink);
+		}
+	}
+
+	/**
+	 * Sets the retry policy shared by every group, so retries of all groups are limited by one budget
+	 */
+	public synchronized void setRetryPolicy(RetryPolicy retryPolicy) {
+		this.retryPolicy = retryPolicy;
+		for (Tenant t : tenants.values()) {
+			t.client.setRetryPolicy(retryPolicy);
+		}
+	}
+
+	/**
+	 * @return Retry counts across all groups
+	 */
+	public synchronized RetryPolicy.RetryMetrics getRetryMetrics() {
+		return retryPolicy.getMetrics();
+	}
+
+	/**
+	 * Queues an API call for a group. Calls with a response code other than 2xx, 
+	 * or that throw, are counted as failed in the group's metrics.
+	 *
+	 * @param group The group name sent as the 'Authorization' header
+	 * @param call Makes the call on a client bound to the group, e.g. c -> c.verify(...)
+	 * @return The HTTP response code, once the call has been made
+	 * @throws RejectedExecutionException if shutdown has been called
+	 */
+	public Future<Integer> submit(String group, ToIntFunction<ArmorvoxClient> call) {
+		synchronized (this) {
+			if (isShutdown) throw new RejectedExecutionException("Client is shut down");
+			
+			Tenant tenant = getTenant(group);
+			FutureTask<Integer> task = new FutureTask<>(() -> {
+				long startTime = System.nanoTime();
+				try {
+					int responseCode = call.applyAsInt(tenant.client);
+					if (responseCode >= 200 && responseCode < 300) {
+						tenant.completed.incrementAndGet();
+					} else {
+						tenant.failed.incrementAndGet();
+					}
+					return responseCode;
+				} catch (Exception e) {
+					// Includes IOExceptions the client throws sneakily
+					tenant.failed.incrementAndGet();
+					throw e;
+				} finally {
+					tenant.totalNanos.addAndGet(System.nanoTime() - startTime);
+				}
+			});
+			tenant.queue.add(task);
+			tenant.submitted.incrementAndGet();
+			if (!tenant.isReady && tenant.inFlight < tenant.quota) {
+				tenant.isReady = true;
+				ready.add(tenant);
+			}
+			dispatch();
+			return task;
+		}
+	}
+
+	/**
+	 * @return A snapshot of the metrics of every group seen so far
+	 */
+	public synchronized List<TenantMetrics> getMetrics() {
+		List<TenantMetrics> result = new ArrayList<>();
+		for (Tenant t : tenants.values()) {
+			result.add(new TenantMetrics(t.group, t.submitted.get(), t.completed.get(), t.failed.get(),
+					t.queue.size(), t.inFlight, t.totalNanos.get() / 1000000));
+		}
+		return result;
+	}
+
+	/**
+	 * Stops accepting new requests. Requests already queued are still made, 
+	 * then the worker threads stop.
+	 */
+	public synchronized void shutdown() {
+		isShutdown = true;
+		shutdownIfIdle();
+	}
+
+	private Tenant getTenant(String group) {
+		return tenants.computeIfAbsent(group, Tenant::new);
+	}
+
+	/**
+	 * Hands queued requests to free workers, taking one request from each ready group in turn.
+	 * A group leaves the ready queue when it has no requests or has reached its quota.
+	 */
+	private synchronized void dispatch() {
+		while (running < threads && !ready.isEmpty()) {
+			Tenant tenant = ready.poll();
+			FutureTask<?> task = tenant.queue.poll();
+			tenant.inFlight++;
+			running++;
+
+			if (!tenant.queue.isEmpty() && tenant.inFlight < tenant.quota) {
+				ready.add(tenant);
+			} else {
+				tenant.isReady = false;
+			}
+
+			executor.execute(() -> run(tenant, task));
+		}
+	}
+
+	private void run(Tenant tenant, FutureTask<?> task) {
+		task.run();
+
+		synchronized (this) {
+			tenant.inFlight--;
+			running--;
+			if (!tenant.isReady && !tenant.queue.isEmpty() && tenant.inFlight < tenant.quota) {
+				tenant.isReady = true;
+				ready.add(tenant);
+			}
+			dispatch();
+			shutdownIfIdle();
+		}
+	}
+
+	/**
+	 * Stops the executor once shutdown has been called and no requests are queued or running
+	 */
+	private synchronized void shutdownIfIdle() {
+		if (!isShutdown || running > 0) return;
+		for (Tenant t : tenants.values()) {
+			if (!t.queue.isEmpty()) return;
+		}
+		executor.shutdown();
+	}
+}
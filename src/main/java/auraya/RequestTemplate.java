@@ -0,0 +1,87 @@
+package auraya;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+
+import lombok.Getter;
+
+/**
+ * A pre-serialised API v8 request for repeated calls where only the utterance audio changes.
+ *
+ * The fixed parts of the JSON body (channel, override, vocab, check_quality, recognition, ids, etc.)
+ * are serialised once into two byte fragments either side of the utterance content. Each call then
+ * streams the base64 encoded audio between the fragments, so no request objects are built and
+ * no reflection takes place per call.
+ *
+ * Instances are created by the template methods of ArmorvoxClient and are immutable,
+ * so one template may be shared by many threads.
+ */
+public class RequestTemplate {
+
+	/**
+	 * Stand-in utterance content used while serialising. Its base64 form marks where the audio is spliced in.
+	 */
+	static final byte[] PLACEHOLDER = "armorvox-request-template-content".getBytes(Charset.forName("US-ASCII"));
+
+	@Getter private final String requestPath;
+	@Getter private final String method;
+	private final byte[] prefix;
+	private final byte[] suffix;
+
+	/**
+	 *
+	 * @param requestPath URL path to RESTful service, already formatted
+	 * @param method HTTP method
+	 * @param body The JSON body serialised with PLACEHOLDER as the utterance content
+	 */
+	RequestTemplate(String requestPath, String method, String body) {
+		String marker = Base64.getEncoder().encodeToString(PLACEHOLDER);
+		int index = body.indexOf(marker);
+		if (index < 0) throw new IllegalArgumentException("Request body has no utterance content to template");
+
+		this.requestPath = requestPath;
+		this.method = method;
+		this.prefix = body.substring(0, index).getBytes(Charset.defaultCharset());
+		this.suffix = body.substring(index + marker.length()).getBytes(Charset.defaultCharset());
+	}
+
+	/**
+	 * @param audioLength Size of the audio in bytes
+	 * @return The exact size of the request body once the audio is spliced in
+	 */
+	long getContentLength(long audioLength) {
+		return prefix.length + 4 * ((audioLength + 2) / 3) + suffix.length;
+	}
+
+	/**
+	 * Writes the complete request body, streaming the audio file as base64 between the fragments.
+	 *
+	 * @param os The request output stream. It is not closed.
+	 * @param audio Path to the utterance audio
+	 */
+	void writeTo(OutputStream os, Path audio) throws IOException {
+		os.write(prefix);
+
+		// Closing the encoder writes the final padding, but must not close the request stream
+		try (OutputStream encoder = Base64.getEncoder().wrap(new FilterOutputStream(os) {
+			@Override
+			public void write(byte[] b, int off, int len) throws IOException {
+				out.write(b, off, len);
+			}
+
+			@Override
+			public void close() throws IOException {
+				flush();
+			}
+		})) {
+			Files.copy(audio, encoder);
+		}
+
+		os.write(suffix);
+	}
+}
@@ -0,0 +1,110 @@
+package auraya;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+
+/**
+ * Decides whether a failed request may be retried, and how long to wait first.
+ *
+ * Retries are limited by a budget shared by every request using this policy, so that a server
+ * that is down is not hit by a storm of retries. Each request adds 'budgetRatio' of a token to the
+ * budget and each retry spends a whole token. With the default ratio of 0.1, retries are at most
+ * 10% of requests, plus a small reserve so that a client making few requests can still retry.
+ *
+ * The wait before each retry is chosen at random up to an exponentially growing limit (full jitter),
+ * so that clients that failed together do not all retry together.
+ *
+ * ArmorvoxClient decides which failures are safe to retry. This class only limits how often.
+ */
+public class RetryPolicy {
+
+	// Tokens are held in thousandths so the budget can be updated atomically
+	private static final long TOKEN = 1000;
+
+	@Getter private final int maxAttempts;
+	private final long baseDelayMillis;
+	private final long maxDelayMillis;
+	private final long depositPerRequest;
+	private final long maxTokens;
+	private final AtomicLong tokens;
+
+	private final AtomicLong requests = new AtomicLong();
+	private final AtomicLong retries = new AtomicLong();
+	private final AtomicLong retriesDenied = new AtomicLong();
+
+	@AllArgsConstructor
+	@Data
+	public static class RetryMetrics {
+		long requests;
+		long retries;
+		/** Retries not made because the budget was spent */
+		long retriesDenied;
+	}
+
+	/**
+	 * A policy allowing 3 attempts, with waits starting at 100 ms up to 2 seconds, and retries up to 10% of requests
+	 */
+	public RetryPolicy() {
+		this(3, 100, 2000, 0.1, 10);
+	}
+
+	/**
+	 *
+	 * @param maxAttempts Maximum attempts at one request, including the first. 1 disables retries.
+	 * @param baseDelayMillis Limit of the wait before the first retry, doubled for each later retry
+	 * @param maxDelayMillis Largest limit of the wait before a retry
+	 * @param budgetRatio Retries allowed per request, e.g. 0.1 for 10%
+	 * @param reserve Retries allowed before any requests are made. Also the most the budget can save up.
+	 */
+	public RetryPolicy(int maxAttempts, long baseDelayMillis, long maxDelayMillis, double budgetRatio, int reserve) {
+		this.maxAttempts = maxAttempts;
+		this.baseDelayMillis = baseDelayMillis;
+		this.maxDelayMillis = maxDelayMillis;
+		this.depositPerRequest = (long) (budgetRatio * TOKEN);
+		this.maxTokens = reserve * TOKEN;
+		this.tokens = new AtomicLong(maxTokens);
+	}
+
+	/**
+	 * Called once for each request, before its first attempt. Adds to the retry budget.
+	 */
+	void onRequest() {
+		requests.incrementAndGet();
+		tokens.updateAndGet(t -> Math.min(maxTokens, t + depositPerRequest));
+	}
+
+	/**
+	 * Called when an attempt has failed in a way that is safe to retry. Spends from the budget if a retry is allowed.
+	 *
+	 * @param attempt The attempt that failed, starting at 1
+	 * @return True if the request should be retried
+	 */
+	boolean tryRetry(int attempt) {
+		if (attempt >= maxAttempts) return false;
+
+		long previous = tokens.getAndUpdate(t -> t >= TOKEN ? t - TOKEN : t);
+		if (previous < TOKEN) {
+			retriesDenied.incrementAndGet();
+			return false;
+		}
+		retries.incrementAndGet();
+		return true;
+	}
+
+	/**
+	 * @param attempt The attempt that failed, starting at 1
+	 * @return A random wait before the next attempt
+	 */
+	long getBackoffMillis(int attempt) {
+		long limit = Math.min(maxDelayMillis, baseDelayMillis << Math.min(attempt - 1, 30));
+		return ThreadLocalRandom.current().nextLong(limit + 1);
+	}
+
+	public RetryMetrics getMetrics() {
+		return new RetryMetrics(requests.get(), retries.get(), retriesDenied.get());
+	}
+}
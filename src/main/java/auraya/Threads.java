@@ -0,0 +1,63 @@
+package auraya;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Creates the threads used to make concurrent requests.
+ *
+ * This is the Java 8 version, which uses pools of platform threads. When built with the 'java21'
+ * profile, the multi-release jar replaces this class with one that runs each request on a virtual thread.
+ */
+final class Threads {
+
+	private Threads() {
+	}
+
+	/**
+	 * @param concurrency Maximum number of requests run at once
+	 * @return An executor for blocking requests
+	 */
+	static ExecutorService newExecutor(int concurrency) {
+		return Executors.newFixedThreadPool(concurrency);
+	}
+
+	/**
+	 * Runs the tasks concurrently and waits for them all to finish.
+	 * If a task fails, the remaining tasks are cancelled and the failure is thrown.
+	 *
+	 * @param tasks The requests to make
+	 * @param concurrency Maximum number of requests run at once
+	 * @return The results, in the order of the tasks
+	 */
+	static <T> List<T> fanOut(List<Callable<T>> tasks, int concurrency) throws InterruptedException, ExecutionException {
+		ExecutorService executor = newExecutor(Math.max(1, Math.min(tasks.size(), concurrency)));
+		try {
+			CompletionService<T> completion = new ExecutorCompletionService<>(executor);
+			List<Future<T>> futures = new ArrayList<>();
+			for (Callable<T> task : tasks) {
+				futures.add(completion.submit(task));
+			}
+
+			// Wait in order of completion, so the first failure is thrown as soon as it happens
+			for (int i = 0; i < futures.size(); i++) {
+				completion.take().get();
+			}
+
+			List<T> results = new ArrayList<>();
+			for (Future<T> future : futures) {
+				results.add(future.get());
+			}
+			return results;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+}
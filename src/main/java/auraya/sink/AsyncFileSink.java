@@ -0,0 +1,133 @@
+package auraya.sink;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes results to a file from a single background thread.
+ * 
+ * Request threads only add results to a lock-free queue. The background thread drains the queue 
+ * into a large buffer, optionally gzip compressed, and flushes it to the file at a fixed interval.
+ * 
+ * All requests must have finished before the sink is closed. Results written after close, 
+ * or after the file could not be written, are rejected.
+ * 
+ * The background thread starts with the first result or on close, so subclasses are fully 
+ * constructed before writeHeader or writeResult is called.
+ */
+public abstract class AsyncFileSink implements ResultSink {
+	
+	private static final int BUFFER_SIZE = 1 << 16;
+	
+	private final Queue<Result> queue = new ConcurrentLinkedQueue<>();
+	private final Writer writer;
+	private final long flushIntervalNanos;
+	private final Thread thread;
+	private final AtomicBoolean isStarted = new AtomicBoolean(false);
+	private volatile boolean isClosed = false;
+	private volatile IOException failure = null;
+
+	/**
+	 * 
+	 * @param path The file to write, replacing any existing file
+	 * @param isGzip Whether to gzip compress the file
+	 * @param flushIntervalMillis How often buffered results are written to the file
+	 */
+	protected AsyncFileSink(String path, boolean isGzip, long flushIntervalMillis) throws IOException {
+		OutputStream os = new FileOutputStream(path);
+		if (isGzip) {
+			try {
+				// Sync flush so each interval's results can be read from the file before it is closed
+				os = new GZIPOutputStream(os, BUFFER_SIZE, true);
+			} catch (IOException e) {
+				os.close();
+				throw e;
+			}
+		}
+		this.writer = new BufferedWriter(new OutputStreamWriter(os, StandardCharsets.UTF_8), BUFFER_SIZE);
+		this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+		
+		this.thread = new Thread(this::run, "result-sink");
+		this.thread.setDaemon(true);
+	}
+	
+	/**
+	 * Writes anything that precedes the results, e.g. a header row. 
+	 * Called once from the background thread, before any results.
+	 */
+	protected void writeHeader(Writer writer) throws IOException {
+	}
+	
+	/**
+	 * Formats a single result. Called only from the background thread.
+	 */
+	protected abstract void writeResult(Writer writer, Result result) throws IOException;
+
+	@Override
+	public void write(Result result) {
+		if (isClosed) throw new IllegalStateException("Result sink is closed");
+		
+		// Nothing drains the queue once the background thread has failed
+		if (failure != null) throw new UncheckedIOException("Result sink failed to write", failure);
+		queue.add(result);
+		start();
+	}
+
+	/**
+	 * Writes all queued results, closes the file and stops the background thread.
+	 * 
+	 * @throws IOException if the background thread failed to write the file
+	 */
+	@Override
+	public void close() throws IOException {
+		isClosed = true;
+		start();
+		LockSupport.unpark(thread);
+		try {
+			thread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		if (failure != null) throw failure;
+	}
+	
+	private void start() {
+		if (isStarted.compareAndSet(false, true)) {
+			thread.start();
+		}
+	}
+	
+	private void run() {
+		try {
+			writeHeader(writer);
+			while (!isClosed) {
+				LockSupport.parkNanos(this, flushIntervalNanos);
+				drain();
+				writer.flush();
+			}
+			drain();
+			writer.close();
+		} catch (IOException e) {
+			failure = e;
+		}
+	}
+	
+	private void drain() throws IOException {
+		Result result;
+		while ((result = queue.poll()) != null) {
+			writeResult(writer, result);
+		}
+	}
+}
@@ -0,0 +1,77 @@
+package auraya.sink;
+
+import java.io.PrintStream;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import lombok.SneakyThrows;
+
+/**
+ * Prints results to standard output for people to read.
+ * 
+ * Each result is printed with a single call, so results from concurrent requests do not interleave.
+ */
+public class ConsoleSink implements ResultSink {
+	
+	private final PrintStream out = System.out;
+	private final boolean showRequest;
+	private final ObjectMapper mapper = new ObjectMapper();
+	
+	public ConsoleSink(boolean isPrettyPrint, boolean showRequest) {
+		this.showRequest = showRequest;
+		
+		if (isPrettyPrint) {
+			mapper.enable(SerializationFeature.INDENT_OUTPUT);
+			mapper.enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+			mapper.enable(DeserializationFeature.USE_BIG_INTEGER_FOR_INTS);
+		}
+	}
+
+	@Override
+	@SneakyThrows
+	public void write(Result result) {
+		String newline = System.lineSeparator();
+		StringBuilder sb = new StringBuilder();
+		
+		sb.append(result.getMethod()).append(' ').append(result.getUrl()).append(newline);
+		
+		if (showRequest) {
+			sb.append(newline);
+			if (result.getRequest() != null) {
+				sb.append("Request body:").append(newline);
+				sb.append(result.getRequest()).append(newline);
+			} else {
+				sb.append("Request body is empty").append(newline);
+			}
+		}
+		
+		sb.append(newline);
+		sb.append("Response body:").append(newline);
+		String response = result.getResponse();
+		
+		// Parse and rewrite for pretty printing
+		if (mapper.isEnabled(SerializationFeature.INDENT_OUTPUT)) {
+			try {
+				JsonNode responseNode = mapper.readTree(response);
+				response = mapper.writeValueAsString(responseNode);
+			} catch (JsonParseException e) {
+				// Not JSON, print as is
+			}
+		}
+		sb.append(response).append(newline);
+		
+		sb.append(newline);
+		sb.append(String.format("Time %d milliseconds%n", result.getMillis()));
+		
+		out.print(sb);
+	}
+
+	@Override
+	public void close() {
+		out.flush();
+	}
+}
@@ -0,0 +1,50 @@
+package auraya.sink;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.Instant;
+
+/**
+ * Writes each result as one CSV row, with a header row first. 
+ * 
+ * The request body is not written; use JsonlSink to record requests.
+ */
+public class CsvSink extends AsyncFileSink {
+
+	public CsvSink(String path, boolean isGzip, long flushIntervalMillis) throws IOException {
+		super(path, isGzip, flushIntervalMillis);
+	}
+	
+	@Override
+	protected void writeHeader(Writer writer) throws IOException {
+		writer.write("time,group,method,url,response_code,millis,response\r\n");
+	}
+
+	@Override
+	protected void writeResult(Writer writer, Result result) throws IOException {
+		writer.write(Instant.ofEpochMilli(result.getTime()).toString());
+		writer.write(',');
+		writeField(writer, result.getGroup());
+		writer.write(',');
+		writer.write(result.getMethod());
+		writer.write(',');
+		writeField(writer, result.getUrl());
+		writer.write(',');
+		writer.write(Integer.toString(result.getResponseCode()));
+		writer.write(',');
+		writer.write(Long.toString(result.getMillis()));
+		writer.write(',');
+		writeField(writer, result.getResponse());
+		writer.write("\r\n");
+	}
+	
+	/**
+	 * Writes a field quoted, doubling any quotes within it (RFC 4180)
+	 */
+	private static void writeField(Writer writer, String value) throws IOException {
+		if (value == null) return;
+		writer.write('"');
+		writer.write(value.replace("\"", "\"\""));
+		writer.write('"');
+	}
+}
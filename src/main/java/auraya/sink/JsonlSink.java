@@ -0,0 +1,46 @@
+package auraya.sink;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.Instant;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Writes each result as one JSON object per line.
+ * 
+ * JSON responses are embedded as JSON objects, other responses as strings.
+ */
+public class JsonlSink extends AsyncFileSink {
+	
+	private final ObjectMapper mapper = new ObjectMapper().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+	public JsonlSink(String path, boolean isGzip, long flushIntervalMillis) throws IOException {
+		super(path, isGzip, flushIntervalMillis);
+	}
+
+	@Override
+	protected void writeResult(Writer writer, Result result) throws IOException {
+		ObjectNode node = mapper.createObjectNode();
+		node.put("time", Instant.ofEpochMilli(result.getTime()).toString());
+		node.put("group", result.getGroup());
+		node.put("method", result.getMethod());
+		node.put("url", result.getUrl());
+		if (result.getRequest() != null) {
+			node.put("request", result.getRequest());
+		}
+		node.put("response_code", result.getResponseCode());
+		try {
+			node.set("response", mapper.readTree(result.getResponse()));
+		} catch (JsonParseException e) {
+			node.put("response", result.getResponse());
+		}
+		node.put("millis", result.getMillis());
+		
+		mapper.writeValue(writer, node);
+		writer.write('\n');
+	}
+}
@@ -0,0 +1,23 @@
+package auraya.sink;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * The outcome of one request to the Armorvox server
+ */
+@AllArgsConstructor
+@Data
+public class Result {
+	/** When the response was received, in milliseconds since the epoch */
+	long time;
+	String group;
+	String method;
+	String url;
+	/** The request body, or null if it is empty or not shown */
+	String request;
+	int responseCode;
+	String response;
+	/** Time from sending the request to receiving the response */
+	long millis;
+}
@@ -0,0 +1,13 @@
+package auraya.sink;
+
+import java.io.Closeable;
+
+/**
+ * Receives the result of each request made by ArmorvoxClient.
+ * 
+ * Implementations must be safe to call from many threads at once.
+ */
+public interface ResultSink extends Closeable {
+	
+	void write(Result result);
+}
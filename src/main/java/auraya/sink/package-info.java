@@ -0,0 +1,8 @@
+/**
+ * Provides the sinks that ArmorvoxClient writes each request's result to.
+ * 
+ * ConsoleSink prints results for people. JsonlSink and CsvSink write results for machines 
+ * to a file, from a single background thread, so that many concurrent requests do not 
+ * contend on the output.
+ */
+package auraya.sink;
@@ -0,0 +1,78 @@
+package auraya;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Creates the threads used to make concurrent requests.
+ *
+ * This is the Java 21 version, packaged in the multi-release jar by the 'java21' profile.
+ * Each request runs on its own virtual thread, so blocking I/O does not tie up a platform thread.
+ */
+final class Threads {
+
+	private Threads() {
+	}
+
+	/**
+	 * Virtual threads are not pooled, so concurrency is left to the caller to limit.
+	 *
+	 * @param concurrency Ignored
+	 * @return An executor that starts a new virtual thread for each request
+	 */
+	static ExecutorService newExecutor(int concurrency) {
+		return Executors.newVirtualThreadPerTaskExecutor();
+	}
+
+	/**
+	 * Runs each task on its own virtual thread and waits for them all to finish.
+	 * If a task fails, the remaining tasks are cancelled and the failure is thrown.
+	 * No task outlives this call.
+	 *
+	 * @param tasks The requests to make
+	 * @param concurrency Maximum number of requests run at once
+	 * @return The results, in the order of the tasks
+	 */
+	static <T> List<T> fanOut(List<Callable<T>> tasks, int concurrency) throws InterruptedException, ExecutionException {
+		Semaphore permits = new Semaphore(Math.max(1, concurrency));
+
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			CompletionService<T> completion = new ExecutorCompletionService<>(executor);
+			List<Future<T>> futures = new ArrayList<>();
+			for (Callable<T> task : tasks) {
+				futures.add(completion.submit(() -> {
+					permits.acquire();
+					try {
+						return task.call();
+					} finally {
+						permits.release();
+					}
+				}));
+			}
+
+			// Wait in order of completion, so the first failure cancels the rest as soon as it happens
+			try {
+				for (int i = 0; i < futures.size(); i++) {
+					completion.take().get();
+				}
+			} catch (ExecutionException | InterruptedException e) {
+				executor.shutdownNow();
+				throw e;
+			}
+
+			List<T> results = new ArrayList<>();
+			for (Future<T> future : futures) {
+				results.add(future.get());
+			}
+			return results;
+		}
+	}
+}
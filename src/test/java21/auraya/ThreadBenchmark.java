@@ -0,0 +1,128 @@
+package auraya;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.sun.net.httpserver.HttpServer;
+
+import auraya.sink.Result;
+import auraya.sink.ResultSink;
+
+/**
+ * Measures concurrent blocking requests made through ArmorvoxClient's bulk check enrolled call,
+ * which runs its requests with Threads.fanOut.
+ *
+ * Which Threads class is used depends on how the jar is run, so the benchmark is run twice:
+ * once as normal on Java 21, using virtual threads from the multi-release jar, and once with
+ * multi-release disabled, using the Java 8 pool of platform threads:
+ *
+ *    java -cp target/armorvox-client.jar:target/test-classes auraya.ThreadBenchmark [delay_ms] [requests...]
+ *    java -Djdk.util.jar.enableMultiRelease=false -cp target/armorvox-client.jar:target/test-classes auraya.ThreadBenchmark [delay_ms] [requests...]
+ *
+ * A local stub server answers every voiceprint as enrolled after a fixed delay, standing in for
+ * server processing time. Any ID not reported as enrolled is counted as failed.
+ * Compiled with the tests by the 'java21' profile, so not shipped in the jar.
+ *
+ * Defaults are a 50 ms delay and 1000, 2000, 5000 and 10000 requests, all allowed in flight at once.
+ * Large request counts open one connection per request in flight, so 'ulimit -n' may need raising.
+ */
+public class ThreadBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		int delayMillis = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+		int[] requestCounts = { 1000, 2000, 5000, 10000 };
+		if (args.length > 1) {
+			requestCounts = new int[args.length - 1];
+			for (int i = 1; i < args.length; i++) {
+				requestCounts[i - 1] = Integer.parseInt(args[i]);
+			}
+		}
+
+		System.setProperty("http.maxConnections", "10000");
+		HttpServer server = startStubServer(delayMillis);
+		String url = "http://localhost:" + server.getAddress().getPort() + "/v8";
+		ArmorvoxClient client = new ArmorvoxClient(url, "benchmark", false, false);
+
+		// Discard results so the console is not the bottleneck
+		client.setSink(new ResultSink() {
+			@Override
+			public void write(Result result) {
+			}
+
+			@Override
+			public void close() {
+			}
+		});
+
+		try {
+			String threads = usesVirtualThreads() ? "virtual" : "platform";
+			System.out.printf("%-10s %-10s %10s %12s %8s%n", "Requests", "Threads", "Millis", "Requests/s", "Failed");
+			for (int requests : requestCounts) {
+				run(client, requests, threads);
+			}
+		} finally {
+			server.stop(0);
+		}
+	}
+
+	private static void run(ArmorvoxClient client, int requests, String threads) {
+		String[] ids = new String[requests];
+		for (int i = 0; i < requests; i++) {
+			ids[i] = "id" + i;
+		}
+		client.setBulkConcurrency(requests);
+
+		long startTime = System.nanoTime();
+		int failed = 0;
+		try {
+			Map<String, Boolean> enrolled = client.checkEnrolled(ids, "benchmark");
+			for (Boolean isEnrolled : enrolled.values()) {
+				if (!Boolean.TRUE.equals(isEnrolled)) failed++;
+			}
+		} catch (Exception e) {
+			// fanOut stops at the first request that throws
+			System.out.printf("%-10d %-10s aborted: %s%n", requests, threads, e);
+			return;
+		}
+
+		long millis = Math.max(1, (System.nanoTime() - startTime) / 1000000);
+		System.out.printf("%-10d %-10s %10d %12d %8d%n", requests, threads, millis, requests * 1000L / millis, failed);
+	}
+
+	/**
+	 * @return Whether the Threads class loaded is the Java 21 version from the multi-release jar
+	 */
+	private static boolean usesVirtualThreads() throws Exception {
+		ExecutorService executor = Threads.newExecutor(1);
+		try {
+			Future<Boolean> isVirtual = executor.submit(() -> Thread.currentThread().isVirtual());
+			return isVirtual.get();
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	private static HttpServer startStubServer(int delayMillis) throws Exception {
+		HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 10000);
+		server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+		server.createContext("/", exchange -> {
+			try {
+				Thread.sleep(delayMillis);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			byte[] response = "{\"status\":\"good\"}".getBytes(StandardCharsets.UTF_8);
+			exchange.sendResponseHeaders(200, response.length);
+			try (OutputStream os = exchange.getResponseBody()) {
+				os.write(response);
+			}
+		});
+		server.start();
+		return server;
+	}
+}